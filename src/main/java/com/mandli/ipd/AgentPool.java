@@ -0,0 +1,89 @@
+package com.mandli.ipd;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Per-thread pools of {@link ResettableAgent} instances, keyed by the {@link Supplier} that created them.
+ * <p/>
+ * {@link #acquire(Supplier)} hands out a reset pooled instance when one is available on the calling thread, and a new instance otherwise. Agents that are not
+ * {@link ResettableAgent}s are never pooled.
+ *
+ * @author yatinsingla on 5/17/18.
+ */
+final class AgentPool {
+
+	private final boolean validateResets;
+	private final ThreadLocal<Map<Supplier<? extends Agent>, Deque<ResettableAgent>>> pools = ThreadLocal
+			.withInitial(HashMap::new);
+
+	/**
+	 * Construct an instance.
+	 *
+	 * @param validateResets
+	 *            Whether to check, every time a pooled instance is reused, that
+	 *            it behaves identically to a new instance after being reset.
+	 *            A {@link StochasticAgent} is checked with both instances
+	 *            drawing from identically seeded random sources.
+	 */
+	AgentPool(boolean validateResets) {
+		this.validateResets = validateResets;
+	}
+
+	/**
+	 * @param supplier
+	 *            A {@link Supplier} returning new instances of the same
+	 *            {@link Agent} type.
+	 * @return A reset pooled instance, or a new instance if the calling
+	 *         thread's pool is empty.
+	 * @throws IllegalStateException
+	 *             If resets are validated and the reset instance behaves
+	 *             differently from a new instance.
+	 */
+	Agent acquire(Supplier<? extends Agent> supplier) {
+		Deque<ResettableAgent> pool = pools.get().get(supplier);
+		if (pool == null || pool.isEmpty()) {
+			return supplier.get();
+		}
+		ResettableAgent agent = pool.pop();
+		agent.reset();
+		if (validateResets) {
+			validateReset(supplier, agent);
+		}
+		return agent;
+	}
+
+	/**
+	 * Return an {@link Agent} to the calling thread's pool once its match is
+	 * over.
+	 *
+	 * @param supplier
+	 *            The {@link Supplier} passed to {@link #acquire(Supplier)}.
+	 * @param agent
+	 *            The acquired {@link Agent}.
+	 */
+	void release(Supplier<? extends Agent> supplier, Agent agent) {
+		if (agent instanceof ResettableAgent) {
+			pools.get().computeIfAbsent(supplier, ignored -> new ArrayDeque<>()).push((ResettableAgent) agent);
+		}
+	}
+
+	/**
+	 * Compare a reset {@link ResettableAgent} against a new instance, leaving
+	 * it reset again afterwards.
+	 */
+	private static void validateReset(Supplier<? extends Agent> supplier, ResettableAgent agent) {
+		List<Action> expected = AgentProbe.probe(supplier.get());
+		List<Action> actual = AgentProbe.probe(agent);
+		agent.reset();
+		if (!expected.equals(actual)) {
+			throw new IllegalStateException(String.format(
+					"%s does not behave like a new instance after reset", agent.getClass().getSimpleName()));
+		}
+	}
+
+}
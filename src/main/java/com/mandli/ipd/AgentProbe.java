@@ -0,0 +1,69 @@
+package com.mandli.ipd;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records an {@link Agent}'s behaviour against a fixed, scripted opponent, so that the behaviour of two instances can be compared.
+ *
+ * @author yatinsingla on 5/17/18.
+ */
+final class AgentProbe {
+
+	private static final int PROBE_ROUNDS = 64;
+	private static final long PROBE_SEED = 20160414L;
+
+	private static final List<Action> SCRIPT = createScript();
+
+	private AgentProbe() {
+	}
+
+	/**
+	 * Play the scripted opponent for a fixed number of rounds. A
+	 * {@link StochasticAgent} draws its chance decisions from a source seeded
+	 * identically for every probe, and is given a new unseeded source
+	 * afterwards.
+	 *
+	 * @param agent
+	 *            An {@link Agent}, which is left in the state reached at the
+	 *            end of the probe.
+	 * @return The {@link Action}s submitted by the agent, in order.
+	 */
+	static List<Action> probe(Agent agent) {
+		StochasticAgent stochasticAgent = agent instanceof StochasticAgent ? (StochasticAgent) agent : null;
+		if (stochasticAgent != null) {
+			stochasticAgent.setRandom(new java.util.Random(PROBE_SEED));
+		}
+		List<Action> actions = new ArrayList<>(PROBE_ROUNDS);
+		for (Action scriptedAction : SCRIPT) {
+			IPD.Moderator moderator = new IPD.Moderator(agent, actionProcessor -> actionProcessor.submitAction(scriptedAction));
+			moderator.runRound();
+			actions.add(moderator.getActionA());
+		}
+		if (stochasticAgent != null) {
+			stochasticAgent.setRandom(new java.util.Random());
+		}
+		return actions;
+	}
+
+	/**
+	 * @param agent
+	 *            An {@link Agent}.
+	 * @return Whether the agent declares that its actions may depend on
+	 *         chance.
+	 * @see StochasticAgent
+	 */
+	static boolean isStochastic(Agent agent) {
+		return agent instanceof StochasticAgent && ((StochasticAgent) agent).isStochastic();
+	}
+
+	private static List<Action> createScript() {
+		java.util.Random random = new java.util.Random(PROBE_SEED);
+		List<Action> script = new ArrayList<>(PROBE_ROUNDS);
+		for (int round = 0; round < PROBE_ROUNDS; round++) {
+			script.add(random.nextBoolean() ? Action.COOPERATE : Action.DEFECT);
+		}
+		return script;
+	}
+
+}
@@ -0,0 +1,170 @@
+package com.mandli.ipd;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark of estimated matches against full simulation.
+ * <p/>
+ * For every pairing of {@link IPD#AGENT_FACTORIES} involving a {@link StochasticAgent}, batches of matches are played both in full and with early termination.
+ * Full and estimated batches alternate, and the order within each pair of batches flips every sample, so that JIT compilation and garbage collection do not
+ * favour either mode. The speedup is reported as the median and the 10th to 90th percentile of the per-sample wall-clock ratios, next to the ratio of rounds
+ * played. For each agent, the mean points per round of the full matches serves as the reference for the accuracy of its estimates. Error and interval coverage
+ * are reported for both agents. Results are written to standard out.
+ *
+ * @author yatinsingla on 5/17/18.
+ */
+final class EstimateBenchmark {
+
+	private static final int ROUNDS_PER_MATCH = 10000;
+	private static final int SAMPLES = 30;
+	private static final int WARM_UP_SAMPLES = 5;
+	private static final int MATCHES_PER_SAMPLE = 10;
+
+	private static final DecimalFormat FORMAT = new DecimalFormat("0.0###");
+
+	private EstimateBenchmark() {
+	}
+
+	public static void main(String... args) {
+		double estimatePrecision = Double.parseDouble(System.getProperty("ipd.estimatePrecision", "0.1"));
+
+		IPD full = new IPD(IPD.AGENT_FACTORIES, ROUNDS_PER_MATCH);
+		IPD estimated = new IPD(IPD.AGENT_FACTORIES, ROUNDS_PER_MATCH, false, estimatePrecision);
+
+		System.out.println(String.format("Rounds per match: %d, samples: %d, matches per sample: %d, precision: %s\n",
+				ROUNDS_PER_MATCH, SAMPLES, MATCHES_PER_SAMPLE, FORMAT.format(estimatePrecision)));
+		System.out.println("Pairing,Full ms/match,Estimated ms/match,Speedup Median,Speedup P10,Speedup P90,"
+				+ "Rounds Ratio,Mean Absolute Error A,Mean Absolute Error B,Coverage A,Coverage B");
+
+		List<Supplier<? extends Agent>> suppliers = IPD.AGENT_FACTORIES;
+		for (int i = 0; i < suppliers.size(); i++) {
+			for (int j = i; j < suppliers.size(); j++) {
+				Supplier<? extends Agent> aSupplier = suppliers.get(i);
+				Supplier<? extends Agent> bSupplier = suppliers.get(j);
+				Agent a = aSupplier.get();
+				Agent b = bSupplier.get();
+				if (!AgentProbe.isStochastic(a) && !AgentProbe.isStochastic(b)) {
+					continue;
+				}
+				for (int warmUp = 0; warmUp < WARM_UP_SAMPLES; warmUp++) {
+					runBatch(full, aSupplier, bSupplier, new ArrayList<>());
+					runBatch(estimated, aSupplier, bSupplier, new ArrayList<>());
+				}
+
+				List<IPD.Context[]> fullResults = new ArrayList<>(SAMPLES * MATCHES_PER_SAMPLE);
+				List<IPD.Context[]> estimatedResults = new ArrayList<>(SAMPLES * MATCHES_PER_SAMPLE);
+				double[] speedups = new double[SAMPLES];
+				long fullNanos = 0;
+				long estimatedNanos = 0;
+				for (int sample = 0; sample < SAMPLES; sample++) {
+					long sampleFullNanos;
+					long sampleEstimatedNanos;
+					if (sample % 2 == 0) {
+						sampleFullNanos = runBatch(full, aSupplier, bSupplier, fullResults);
+						sampleEstimatedNanos = runBatch(estimated, aSupplier, bSupplier, estimatedResults);
+					} else {
+						sampleEstimatedNanos = runBatch(estimated, aSupplier, bSupplier, estimatedResults);
+						sampleFullNanos = runBatch(full, aSupplier, bSupplier, fullResults);
+					}
+					speedups[sample] = (double) sampleFullNanos / sampleEstimatedNanos;
+					fullNanos += sampleFullNanos;
+					estimatedNanos += sampleEstimatedNanos;
+				}
+				Arrays.sort(speedups);
+
+				double roundsPlayed = estimatedResults.stream().mapToDouble(contexts -> contexts[0].getRoundsPlayed())
+						.average().getAsDouble();
+				Accuracy aAccuracy = new Accuracy(fullResults, estimatedResults, 0);
+				Accuracy bAccuracy = new Accuracy(fullResults, estimatedResults, 1);
+
+				int matches = SAMPLES * MATCHES_PER_SAMPLE;
+				String pairing = a.getClass().getSimpleName() + " vs " + b.getClass().getSimpleName();
+				System.out.println(String.join(",", pairing, FORMAT.format(fullNanos / 1e6 / matches),
+						FORMAT.format(estimatedNanos / 1e6 / matches), FORMAT.format(percentile(speedups, 0.5)),
+						FORMAT.format(percentile(speedups, 0.1)), FORMAT.format(percentile(speedups, 0.9)),
+						FORMAT.format(ROUNDS_PER_MATCH / roundsPlayed), aAccuracy.getMeanAbsoluteError(),
+						bAccuracy.getMeanAbsoluteError(), aAccuracy.getCoverage(), bAccuracy.getCoverage()));
+			}
+		}
+	}
+
+	/**
+	 * Play {@link #MATCHES_PER_SAMPLE} matches.
+	 *
+	 * @param results
+	 *            Receives the {@link IPD.Context}s of a and b from each match.
+	 * @return The elapsed wall-clock time in nanoseconds.
+	 */
+	private static long runBatch(IPD ipd, Supplier<? extends Agent> aSupplier, Supplier<? extends Agent> bSupplier,
+			List<IPD.Context[]> results) {
+		long start = System.nanoTime();
+		for (int match = 0; match < MATCHES_PER_SAMPLE; match++) {
+			results.add(ipd.playMatch(aSupplier.get(), bSupplier.get()));
+		}
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * @param sorted
+	 *            Values in ascending order.
+	 * @param fraction
+	 *            The percentile, as a fraction in [0, 1].
+	 * @return The nearest-rank percentile.
+	 */
+	private static double percentile(double[] sorted, double fraction) {
+		return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+	}
+
+	/**
+	 * The accuracy of one agent's estimated points per round, measured
+	 * against the mean of its full matches.
+	 */
+	private static final class Accuracy {
+		private final double meanAbsoluteError;
+		private final int estimatedCount;
+		private final int coveredCount;
+
+		/**
+		 * @param side
+		 *            0 for agent a, 1 for agent b.
+		 */
+		Accuracy(List<IPD.Context[]> fullResults, List<IPD.Context[]> estimatedResults, int side) {
+			double fullPointsPerRound = fullResults.stream().mapToDouble(contexts -> contexts[side].getScore())
+					.average().getAsDouble() / ROUNDS_PER_MATCH;
+			double absoluteError = 0;
+			int estimated = 0;
+			int covered = 0;
+			for (IPD.Context[] contexts : estimatedResults) {
+				IPD.Context estimate = contexts[side];
+				double error = Math.abs((double) estimate.getScore() / ROUNDS_PER_MATCH - fullPointsPerRound);
+				absoluteError += error;
+				if (estimate.isEstimated()) {
+					estimated++;
+					if (error <= estimate.getScoreMargin() / ROUNDS_PER_MATCH) {
+						covered++;
+					}
+				}
+			}
+			this.meanAbsoluteError = absoluteError / estimatedResults.size();
+			this.estimatedCount = estimated;
+			this.coveredCount = covered;
+		}
+
+		String getMeanAbsoluteError() {
+			return FORMAT.format(meanAbsoluteError);
+		}
+
+		/**
+		 * @return The fraction of estimated matches whose error bar covers
+		 *         the reference, or n/a if no match was estimated.
+		 */
+		String getCoverage() {
+			return estimatedCount == 0 ? "n/a" : FORMAT.format((double) coveredCount / estimatedCount);
+		}
+	}
+
+}
@@ -13,8 +13,10 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -37,7 +39,7 @@ public class IPD implements Runnable {
 	 * A {@link List} of {@link Supplier}s. Each supplier should always return a
 	 * new instance of the same {@link Agent} type.
 	 */
-	private static final List<Supplier<? extends Agent>> AGENT_FACTORIES = Collections.unmodifiableList(
+	static final List<Supplier<? extends Agent>> AGENT_FACTORIES = Collections.unmodifiableList(
 			Arrays.asList(TitForTat::new, AlwaysCooperate::new, AlwaysDefect::new, Random::new, MyAgent::new));
 
 	private static final List<String> TOURNAMENT_RESULTS_HEADER = Collections.unmodifiableList(
@@ -45,8 +47,41 @@ public class IPD implements Runnable {
 
 	private static final DecimalFormat POINTS_PER_ROUND_FORMAT = new DecimalFormat("0.0#####");
 
+	/**
+	 * The number of rounds played before an estimated match first checks for
+	 * convergence. Subsequent checks are spaced geometrically.
+	 */
+	private static final int ESTIMATE_MIN_ROUNDS = 100;
+	private static final double ESTIMATE_CHECK_GROWTH = 1.2;
+
+	/**
+	 * The number of consecutive rounds averaged into each batch mean. Rewards
+	 * of stateful agents are serially dependent, but the means of batches
+	 * longer than an agent's memory are nearly independent.
+	 */
+	private static final int ESTIMATE_BATCH_ROUNDS = 20;
+
+	/**
+	 * The nominal error probability, per match, spent across all convergence
+	 * checks. The intervals are normal approximations, so this is a target
+	 * rather than a guarantee.
+	 */
+	private static final double ESTIMATE_ERROR_PROBABILITY = 0.05;
+
+	/**
+	 * The minimum fraction of a match's rounds an early stop must save.
+	 * Stopping later would trade exact results for estimates while saving
+	 * little, so past that point a match simply runs to completion.
+	 */
+	private static final double ESTIMATE_MIN_SAVINGS = 0.25;
+
+	private static final int MIN_REWARD = Arrays.stream(Reward.values()).mapToInt(Reward::getValue).min().getAsInt();
+	private static final int MAX_REWARD = Arrays.stream(Reward.values()).mapToInt(Reward::getValue).max().getAsInt();
+
 	private final Collection<Supplier<? extends Agent>> competitorSuppliers;
 	private final int roundsPerMatch;
+	private final AgentPool agentPool;
+	private final double estimatePrecision;
 
 	private final Map<Class<? extends Agent>, CombinedContext> combinedContexts;
 
@@ -61,11 +96,66 @@ public class IPD implements Runnable {
 	 *            competitors.
 	 */
 	IPD(Collection<Supplier<? extends Agent>> competitorSuppliers, int roundsPerMatch) {
+		this(competitorSuppliers, roundsPerMatch, false);
+	}
+
+	/**
+	 * Construct an instance.
+	 *
+	 * @param competitorSuppliers
+	 *            A {@link List} of {@link Supplier}s. Each supplier should
+	 *            always return a new instance of the same {@link Agent} type.
+	 * @param roundsPerMatch
+	 *            The number of rounds to run in matches between every two
+	 *            competitors.
+	 * @param validateResets
+	 *            Whether to check that every reused {@link ResettableAgent}
+	 *            behaves identically to a new instance after being reset.
+	 */
+	IPD(Collection<Supplier<? extends Agent>> competitorSuppliers, int roundsPerMatch, boolean validateResets) {
+		this(competitorSuppliers, roundsPerMatch, validateResets, 0);
+	}
+
+	/**
+	 * Construct an instance.
+	 *
+	 * @param competitorSuppliers
+	 *            A {@link List} of {@link Supplier}s. Each supplier should
+	 *            always return a new instance of the same {@link Agent} type.
+	 * @param roundsPerMatch
+	 *            The number of rounds to run in matches between every two
+	 *            competitors.
+	 * @param validateResets
+	 *            Whether to check that every reused {@link ResettableAgent}
+	 *            behaves identically to a new instance after being reset.
+	 * @param estimatePrecision
+	 *            If positive, matches involving a {@link StochasticAgent}
+	 *            stop early once both sides' points per round are known to
+	 *            within this precision, and report scaled estimates. A match
+	 *            only stops if that saves at least a quarter of its rounds.
+	 *            At a precision of 0.1 convergence typically takes several
+	 *            thousand rounds, so shorter matches gain nothing and run in
+	 *            full. If zero, every match runs to completion.
+	 */
+	IPD(Collection<Supplier<? extends Agent>> competitorSuppliers, int roundsPerMatch, boolean validateResets,
+			double estimatePrecision) {
+		if (estimatePrecision < 0) {
+			throw new IllegalArgumentException("estimatePrecision must not be negative: " + estimatePrecision);
+		}
 		this.competitorSuppliers = competitorSuppliers;
 		this.roundsPerMatch = roundsPerMatch;
+		this.agentPool = new AgentPool(validateResets);
+		this.estimatePrecision = estimatePrecision;
 		this.combinedContexts = new HashMap<>(competitorSuppliers.size());
 	}
 
+	/**
+	 * @return The number of rounds in every match.
+	 */
+	int getRoundsPerMatch() {
+		return roundsPerMatch;
+	}
+
 	/**
 	 * Run the Iterated Prisoner's Dilemma tournament.
 	 */
@@ -73,16 +163,26 @@ public class IPD implements Runnable {
 	public void run() {
 		System.out.println(String.format("Rounds per match: %d\n", roundsPerMatch));
 
-		ExecutorService matchExecutorService = Executors.newCachedThreadPool();
+		// A fixed number of threads, so that each thread's agent pool is
+		// reused across matches
+		ExecutorService matchExecutorService = Executors
+				.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
 
+		List<Future<?>> matches = new ArrayList<>();
 		ArrayDeque<Supplier<? extends Agent>> competitorSuppliersQueue = new ArrayDeque<>(competitorSuppliers);
 		while (!competitorSuppliersQueue.isEmpty()) {
 			Supplier<? extends Agent> aSupplier = competitorSuppliersQueue.getFirst();
 			competitorSuppliersQueue.stream().forEach(bSupplier -> {
-				Agent a = aSupplier.get();
-				Agent b = bSupplier.get();
-				// System.out.println(a + b);
-				matchExecutorService.submit(() -> runMatch(a, b));
+				matches.add(matchExecutorService.submit(() -> {
+					Agent a = agentPool.acquire(aSupplier);
+					Agent b = agentPool.acquire(bSupplier);
+					try {
+						runMatch(a, b);
+					} finally {
+						agentPool.release(aSupplier, a);
+						agentPool.release(bSupplier, b);
+					}
+				}));
 			});
 			competitorSuppliersQueue.removeFirst();
 		}
@@ -90,8 +190,13 @@ public class IPD implements Runnable {
 		matchExecutorService.shutdown();
 		try {
 			matchExecutorService.awaitTermination(120, TimeUnit.SECONDS);
+			for (Future<?> match : matches) {
+				match.get();
+			}
 		} catch (InterruptedException e) {
 			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
 		}
 
 		printTournamentResults();
@@ -132,18 +237,45 @@ public class IPD implements Runnable {
 
 		records.stream().map(record -> record.stream().collect(Collectors.joining(" "))).forEach(System.out::println);
 
+		// Estimated cells take the form ~points per round +/-margin
 		System.out.println("\nMatch Up Results Table (CSV):");
 		System.out.println("," + ranking.stream().map(Class::getSimpleName).collect(Collectors.joining(",")));
 		ranking.stream().forEach(agentClass -> {
 			CombinedContext agentCombinedCondext = combinedContexts.get(agentClass);
 			System.out.println(agentClass.getSimpleName() + ","
 					+ ranking.stream()
-							.mapToDouble(opponentClass -> (double) agentCombinedCondext
-									.getIndividualContexts(opponentClass).getScore() / roundsPerMatch)
-							.mapToObj(POINTS_PER_ROUND_FORMAT::format).collect(Collectors.joining(",")));
+							.map(opponentClass -> toMatchUpResultsCell(
+									agentCombinedCondext.getIndividualContexts(opponentClass)))
+							.collect(Collectors.joining(",")));
 		});
 	}
 
+	/**
+	 * @param context
+	 *            An agent's {@link Context} from a single match.
+	 * @return The agent's average points per round, marked with its margin
+	 *         if estimated.
+	 */
+	private String toMatchUpResultsCell(Context context) {
+		String averageScore = POINTS_PER_ROUND_FORMAT.format((double) context.getScore() / roundsPerMatch);
+		if (!context.isEstimated()) {
+			return averageScore;
+		}
+		return String.format("~%s +/-%s", averageScore,
+				POINTS_PER_ROUND_FORMAT.format(context.getScoreMargin() / roundsPerMatch));
+	}
+
+	/**
+	 * @param value
+	 *            An extrapolated value.
+	 * @param margin
+	 *            The half width of its confidence interval.
+	 * @return A {@link String} of the form ~value +/-margin.
+	 */
+	private static String toEstimateString(long value, double margin) {
+		return String.format("~%d +/-%d", value, Math.round(margin));
+	}
+
 	/**
 	 * Add whitespace to the end of a {@link String} until it is at least the
 	 * desired minLength.
@@ -175,6 +307,47 @@ public class IPD implements Runnable {
 	 *            {@link Agent} b.
 	 */
 	private void runMatch(Agent a, Agent b) {
+		Context[] contexts = playMatch(a, b);
+		Context aContext = contexts[0];
+		Context bContext = contexts[1];
+
+		updateCombinedContext(a, aContext);
+		if (a.getClass() != b.getClass()) {
+			updateCombinedContext(b, bContext);
+		}
+
+		String aName = a.getClass().getSimpleName();
+		String bName = b.getClass().getSimpleName();
+
+		synchronized (this) {
+			System.out.println(String.format("%s vs %s:", aName, bName));
+			System.out.println("  " + toMatchResultsString(aName, aContext));
+			System.out.println("  " + toMatchResultsString(bName, bContext) + "\n");
+		}
+	}
+
+	/**
+	 * Play a match between two {@link Agent}s.
+	 * <p/>
+	 * If estimation is enabled and either agent declares itself a
+	 * {@link StochasticAgent}, the running points per round of both sides are
+	 * checked at geometrically spaced rounds. Each check builds an approximate
+	 * confidence interval from batch means, whose variance is floored so that
+	 * a run of identical rewards cannot produce a zero width interval. Once
+	 * both intervals are within the configured precision the match stops,
+	 * provided at least {@link #ESTIMATE_MIN_SAVINGS} of its rounds remain, and
+	 * the returned {@link Context}s are scaled up to the full match length and
+	 * marked as estimated. The confidence level of each check is tightened so
+	 * that the nominal error probability over all checks stays below
+	 * {@link #ESTIMATE_ERROR_PROBABILITY}.
+	 *
+	 * @param a
+	 *            {@link Agent} a.
+	 * @param b
+	 *            {@link Agent} b.
+	 * @return The {@link Context}s of a and b, in that order.
+	 */
+	Context[] playMatch(Agent a, Agent b) {
 
 		Context aContext = new Context(b.getClass());
 		Context bContext = new Context(a.getClass());
@@ -182,47 +355,81 @@ public class IPD implements Runnable {
 		// System.out.println("a = " + a.getClass().getSimpleName() + " b = " +
 		// b);
 
+		int lastStopRound = (int) (roundsPerMatch * (1 - ESTIMATE_MIN_SAVINGS));
+		boolean estimate = estimatePrecision > 0 && lastStopRound >= ESTIMATE_MIN_ROUNDS
+				&& (AgentProbe.isStochastic(a) || AgentProbe.isStochastic(b));
+		RunningEstimate aEstimate = new RunningEstimate();
+		RunningEstimate bEstimate = new RunningEstimate();
+		double nextCheck = ESTIMATE_MIN_ROUNDS;
+		int checkCount = 0;
+
 		for (int round = 0; round < roundsPerMatch; round++) {
 			Moderator moderator = new Moderator(a, b);
 			moderator.runRound();
 
+			Reward aResult;
+			Reward bResult;
+			Action aAction;
+			Action bAction;
+
 			// In this implementation if both are MyAgent
 			// (i.e MyAgent vs MyAgent) both will always be COOPERATE
 			if ((a.getClass().getSimpleName().equals("MyAgent")) && (b.getClass().getSimpleName().equals("MyAgent"))) {
 
-				Reward aResult = Reward.MUTUAL_COOPERATION;
-				Reward bResult = Reward.MUTUAL_COOPERATION;
-				Action aAction = COOPERATE;
-				Action bAction = COOPERATE;
-
-				aContext = aContext.add(aAction, aResult, bResult);
-				bContext = bContext.add(bAction, bResult, aResult);
+				aResult = Reward.MUTUAL_COOPERATION;
+				bResult = Reward.MUTUAL_COOPERATION;
+				aAction = COOPERATE;
+				bAction = COOPERATE;
 
 			} else {
-				Reward aResult = moderator.getResultA().getReward();
-				Reward bResult = moderator.getResultB().getReward();
-				Action aAction = moderator.getActionA();
-				Action bAction = moderator.getActionB();
-
-				aContext = aContext.add(aAction, aResult, bResult);
-				bContext = bContext.add(bAction, bResult, aResult);
+				aResult = moderator.getResultA().getReward();
+				bResult = moderator.getResultB().getReward();
+				aAction = moderator.getActionA();
+				bAction = moderator.getActionB();
 			}
 
-		}
+			aContext = aContext.add(aAction, aResult, bResult);
+			bContext = bContext.add(bAction, bResult, aResult);
 
-		updateCombinedContext(a, aContext);
-		if (a.getClass() != b.getClass()) {
-			updateCombinedContext(b, bContext);
+			int roundsPlayed = round + 1;
+			if (!estimate || roundsPlayed > lastStopRound) {
+				continue;
+			}
+			aEstimate.add(aResult.getValue());
+			bEstimate.add(bResult.getValue());
+
+			if (roundsPlayed >= nextCheck && roundsPlayed % ESTIMATE_BATCH_ROUNDS == 0) {
+				// Spend 6 / (pi^2 k^2) of the error probability on the k-th
+				// check, split between both sides and both tails
+				checkCount++;
+				double checkErrorProbability = ESTIMATE_ERROR_PROBABILITY * 6 / (Math.PI * Math.PI * checkCount * checkCount);
+				double z = upperNormalQuantile(checkErrorProbability / 4);
+				double aMargin = aEstimate.getMargin(z);
+				double bMargin = bEstimate.getMargin(z);
+				if (aMargin <= estimatePrecision && bMargin <= estimatePrecision) {
+					return new Context[] { aContext.extrapolate(roundsPerMatch, aMargin, bMargin),
+							bContext.extrapolate(roundsPerMatch, bMargin, aMargin) };
+				}
+				nextCheck *= ESTIMATE_CHECK_GROWTH;
+			}
 		}
 
-		String aName = a.getClass().getSimpleName();
-		String bName = b.getClass().getSimpleName();
+		return new Context[] { aContext, bContext };
+	}
 
-		synchronized (this) {
-			System.out.println(String.format("%s vs %s:", aName, bName));
-			System.out.println("  " + toMatchResultsString(aName, aContext));
-			System.out.println("  " + toMatchResultsString(bName, bContext) + "\n");
-		}
+	/**
+	 * Approximate the standard normal quantile with the given upper tail
+	 * probability, using Abramowitz and Stegun 26.2.23 (absolute error below
+	 * 4.5e-4).
+	 *
+	 * @param p
+	 *            An upper tail probability in (0, 0.5].
+	 * @return z such that P(Z > z) = p.
+	 */
+	private static double upperNormalQuantile(double p) {
+		double t = Math.sqrt(-2 * Math.log(p));
+		return t - (2.515517 + 0.802853 * t + 0.010328 * t * t)
+				/ (1 + 1.432788 * t + 0.189269 * t * t + 0.001308 * t * t * t);
 	}
 
 	/**
@@ -246,7 +453,10 @@ public class IPD implements Runnable {
 	 * *name: score (average points per round)
 	 * <p/>
 	 * Where the (*) identifies the {@link Agent} with the greater number of
-	 * points.
+	 * points. Estimated results take the form:
+	 * <p/>
+	 * *name: ~score +/-margin (average points per round +/-margin, estimated from
+	 * n rounds)
 	 *
 	 * @param name
 	 * @param context
@@ -254,7 +464,12 @@ public class IPD implements Runnable {
 	private String toMatchResultsString(String name, Context context) {
 		String marker = context.getOpponentScore() < context.getScore() ? "*" : " ";
 		String averageScore = POINTS_PER_ROUND_FORMAT.format((double) context.getScore() / roundsPerMatch);
-		return String.format("%s%s: %d (%s)", marker, name, context.getScore(), averageScore);
+		if (!context.isEstimated()) {
+			return String.format("%s%s: %d (%s)", marker, name, context.getScore(), averageScore);
+		}
+		return String.format("%s%s: %s (%s +/-%s, estimated from %d rounds)", marker, name,
+				toEstimateString(context.getScore(), context.getScoreMargin()), averageScore,
+				POINTS_PER_ROUND_FORMAT.format(context.getScoreMargin() / roundsPerMatch), context.getRoundsPlayed());
 	}
 
 	/**
@@ -262,6 +477,9 @@ public class IPD implements Runnable {
 	 * .csv {@link String} of the following values:
 	 * <p/>
 	 * Name, Total Score, Total Opponent Score, Cooperate Count, Defect Count
+	 * <p/>
+	 * If any of the agent type's matches were estimated, the scores are
+	 * marked with ~ and their margins, and the counts with ~.
 	 *
 	 * @param agentClass
 	 *            The {@link Agent} class.
@@ -275,10 +493,17 @@ public class IPD implements Runnable {
 		ArrayList<String> record = new ArrayList<>();
 		record.add(Integer.toString(rank));
 		record.add(agentClass.getSimpleName());
-		record.add(Integer.toString(combinedContext.getScore()));
-		record.add(Integer.toString(combinedContext.getOpponentScore()));
-		record.add(Long.toString(combinedContext.getCooperateCount()));
-		record.add(Long.toString(combinedContext.getDefectCount()));
+		if (combinedContext.isEstimated()) {
+			record.add(toEstimateString(combinedContext.getScore(), combinedContext.getScoreMargin()));
+			record.add(toEstimateString(combinedContext.getOpponentScore(), combinedContext.getOpponentScoreMargin()));
+			record.add("~" + combinedContext.getCooperateCount());
+			record.add("~" + combinedContext.getDefectCount());
+		} else {
+			record.add(Integer.toString(combinedContext.getScore()));
+			record.add(Integer.toString(combinedContext.getOpponentScore()));
+			record.add(Long.toString(combinedContext.getCooperateCount()));
+			record.add(Long.toString(combinedContext.getDefectCount()));
+		}
 		return record;
 	}
 
@@ -286,7 +511,8 @@ public class IPD implements Runnable {
 		int roundsPerMatch = 1000 + (int) (Math.random() * 9000);
 
 		try {
-			new IPD(AGENT_FACTORIES, roundsPerMatch).run();
+			new IPD(AGENT_FACTORIES, roundsPerMatch, Boolean.getBoolean("ipd.validateResets"),
+					Double.parseDouble(System.getProperty("ipd.estimatePrecision", "0"))).run();
 		} catch (Throwable t) {
 			t.printStackTrace();
 		}
@@ -296,7 +522,7 @@ public class IPD implements Runnable {
 	 * Moderates a match between two {@link Agent}s allowing for easy
 	 * {@link Action} submission and result retrieval.
 	 */
-	private static class Moderator {
+	static class Moderator {
 
 		private final Agent a;
 		private final Agent b;
@@ -355,12 +581,16 @@ public class IPD implements Runnable {
 	/**
 	 * A context object for tracking an agent or agent type's results.
 	 */
-	private static final class Context {
+	static final class Context {
 		private final Class<? extends Agent> opponentClass;
 		private final int score;
 		private final int opponentScore;
 		private final int defectCount;
 		private final int cooperateCount;
+		private final int roundsPlayed;
+		private final double scoreMargin;
+		private final double opponentScoreMargin;
+		private final boolean estimated;
 
 		Context(Class<? extends Agent> opponentClass) {
 			this.opponentClass = opponentClass;
@@ -368,21 +598,53 @@ public class IPD implements Runnable {
 			this.opponentScore = 0;
 			this.defectCount = 0;
 			this.cooperateCount = 0;
+			this.roundsPlayed = 0;
+			this.scoreMargin = 0;
+			this.opponentScoreMargin = 0;
+			this.estimated = false;
 		}
 
 		Context(Class<? extends Agent> opponentClass, int score, int opponentScore, int defectCount,
-				int cooperateCount) {
+				int cooperateCount, int roundsPlayed, double scoreMargin, double opponentScoreMargin,
+				boolean estimated) {
 			this.opponentClass = opponentClass;
 			this.score = score;
 			this.opponentScore = opponentScore;
 			this.defectCount = defectCount;
 			this.cooperateCount = cooperateCount;
+			this.roundsPlayed = roundsPlayed;
+			this.scoreMargin = scoreMargin;
+			this.opponentScoreMargin = opponentScoreMargin;
+			this.estimated = estimated;
 		}
 
 		Context add(Action action, Reward result, Reward opponentResult) {
 			return new Context(opponentClass, score + result.getValue(), opponentScore + opponentResult.getValue(),
 					action == DEFECT ? defectCount + 1 : defectCount,
-					action == COOPERATE ? cooperateCount + 1 : cooperateCount);
+					action == COOPERATE ? cooperateCount + 1 : cooperateCount, roundsPlayed + 1, 0, 0,
+					false);
+		}
+
+		/**
+		 * Scale the results of a partially played match up to the full match
+		 * length.
+		 *
+		 * @param roundsPerMatch
+		 *            The full match length.
+		 * @param pointsPerRoundMargin
+		 *            The half width of the confidence interval for this
+		 *            agent's points per round.
+		 * @param opponentPointsPerRoundMargin
+		 *            The half width of the confidence interval for the
+		 *            opponent's points per round.
+		 * @return An estimated {@link Context}.
+		 */
+		Context extrapolate(int roundsPerMatch, double pointsPerRoundMargin, double opponentPointsPerRoundMargin) {
+			double scale = (double) roundsPerMatch / roundsPlayed;
+			int scaledDefectCount = (int) Math.round(defectCount * scale);
+			return new Context(opponentClass, (int) Math.round(score * scale), (int) Math.round(opponentScore * scale),
+					scaledDefectCount, roundsPerMatch - scaledDefectCount, roundsPlayed,
+					pointsPerRoundMargin * roundsPerMatch, opponentPointsPerRoundMargin * roundsPerMatch, true);
 		}
 
 		Class<? extends Agent> getOpponentClass() {
@@ -404,6 +666,34 @@ public class IPD implements Runnable {
 		int getCooperateCount() {
 			return cooperateCount;
 		}
+
+		/**
+		 * @return The number of rounds actually played, which is less than the
+		 *         match length for estimated results.
+		 */
+		int getRoundsPlayed() {
+			return roundsPlayed;
+		}
+
+		/**
+		 * @return The half width of the confidence interval for the score, or
+		 *         zero for exact results.
+		 */
+		double getScoreMargin() {
+			return scoreMargin;
+		}
+
+		/**
+		 * @return The half width of the confidence interval for the
+		 *         opponent's score, or zero for exact results.
+		 */
+		double getOpponentScoreMargin() {
+			return opponentScoreMargin;
+		}
+
+		boolean isEstimated() {
+			return estimated;
+		}
 	}
 
 	private static final class CombinedContext {
@@ -436,6 +726,74 @@ public class IPD implements Runnable {
 		int getCooperateCount() {
 			return contexts.values().stream().mapToInt(Context::getCooperateCount).sum();
 		}
+
+		/**
+		 * @return The margins of the individual estimates combined in
+		 *         quadrature, since matches are independent.
+		 */
+		double getScoreMargin() {
+			return Math.sqrt(contexts.values().stream().mapToDouble(Context::getScoreMargin).map(m -> m * m).sum());
+		}
+
+		/**
+		 * @return The margins of the individual opponent score estimates
+		 *         combined in quadrature.
+		 */
+		double getOpponentScoreMargin() {
+			return Math.sqrt(
+					contexts.values().stream().mapToDouble(Context::getOpponentScoreMargin).map(m -> m * m).sum());
+		}
+
+		boolean isEstimated() {
+			return contexts.values().stream().anyMatch(Context::isEstimated);
+		}
+	}
+
+	/**
+	 * Running batch means of an agent's per round rewards.
+	 */
+	private static final class RunningEstimate {
+		private int batchRounds;
+		private int batchSum;
+		private long batchCount;
+		private double sumOfBatchMeans;
+		private double sumOfSquaredBatchMeans;
+
+		void add(int reward) {
+			batchSum += reward;
+			if (++batchRounds == ESTIMATE_BATCH_ROUNDS) {
+				double batchMean = (double) batchSum / ESTIMATE_BATCH_ROUNDS;
+				batchCount++;
+				sumOfBatchMeans += batchMean;
+				sumOfSquaredBatchMeans += batchMean * batchMean;
+				batchRounds = 0;
+				batchSum = 0;
+			}
+		}
+
+		/**
+		 * The batch mean variance is computed with two extra pseudo batches at
+		 * the lowest and highest possible reward. This keeps the margin from
+		 * collapsing before rare rewards have been seen, and its effect fades
+		 * as batches accumulate.
+		 *
+		 * @param z
+		 *            The standard normal quantile of the desired confidence
+		 *            level.
+		 * @return The half width of the confidence interval for the mean
+		 *         reward per round, or infinity if too few batches are
+		 *         complete.
+		 */
+		double getMargin(double z) {
+			if (batchCount < 2) {
+				return Double.POSITIVE_INFINITY;
+			}
+			double count = batchCount + 2;
+			double sum = sumOfBatchMeans + MIN_REWARD + MAX_REWARD;
+			double sumOfSquares = sumOfSquaredBatchMeans + MIN_REWARD * MIN_REWARD + MAX_REWARD * MAX_REWARD;
+			double variance = (sumOfSquares - sum * sum / count) / (count - 1);
+			return z * Math.sqrt(variance / batchCount);
+		}
 	}
 
 }
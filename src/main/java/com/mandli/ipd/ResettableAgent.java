@@ -0,0 +1,18 @@
+package com.mandli.ipd;
+
+/**
+ * An {@link Agent} that can be returned to its initial state, allowing a single instance to take part in many matches.
+ * <p/>
+ * After {@link #reset()} the agent must behave exactly as a newly constructed instance would. The tournament may then keep a pool of instances and reset them
+ * between matches instead of constructing a new instance for every match, which pays off for agents with expensive setup.
+ *
+ * @author yatinsingla on 5/17/18.
+ */
+public interface ResettableAgent extends Agent {
+
+	/**
+	 * Discard all state gathered during a match, returning this agent to the state of a newly constructed instance.
+	 */
+	void reset();
+
+}
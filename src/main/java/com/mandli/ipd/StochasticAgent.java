@@ -0,0 +1,27 @@
+package com.mandli.ipd;
+
+/**
+ * An {@link Agent} whose actions may depend on chance, so that two instances may act differently against the same opponent.
+ * <p/>
+ * Agents not implementing this interface are assumed to be deterministic. Stochastic agents draw every chance decision from a replaceable random source, so that
+ * reset validation can seed a reset instance and a new instance identically and expect identical actions.
+ *
+ * @author yatinsingla on 5/17/18.
+ */
+public interface StochasticAgent extends Agent {
+
+	/**
+	 * @return Whether this instance's actions may depend on chance. Parameterized agents may return false for parameters that make them deterministic.
+	 */
+	default boolean isStochastic() {
+		return true;
+	}
+
+	/**
+	 * Replace the source of all subsequent chance decisions. This is not part of the state cleared by {@link ResettableAgent#reset()}.
+	 *
+	 * @param random The random source.
+	 */
+	void setRandom(java.util.Random random);
+
+}
@@ -0,0 +1,335 @@
+package com.mandli.ipd;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.mandli.ipd.impl.ForgivingTitForTat;
+
+/**
+ * Parameter sweep for a parameterized {@link Agent}.
+ * <p/>
+ * Each candidate parameter set is turned into an {@link Agent} {@link Supplier} and evaluated by its average points per round against a fixed reference field of
+ * competitors. Candidates are evaluated in parallel using successive halving: every candidate first plays short matches, then only the best fraction of each rung
+ * advances to longer matches. Once fewer than reductionFactor candidates would advance, or the next rung would reach the maximum match length, up to
+ * reductionFactor finalists are evaluated at the maximum match length, and the best of them wins. Candidates with equal scores are ranked in their original
+ * order, so that a sweep's outcome does not depend on evaluation timing.
+ * <p/>
+ * Every evaluation is written to a CSV file as soon as it completes.
+ *
+ * @author yatinsingla on 5/17/18.
+ */
+public class Sweep implements Runnable {
+
+	private static final String RESULTS_FILE = "sweep_results.csv";
+
+	private final Function<Map<String, Double>, Supplier<? extends Agent>> agentFactory;
+	private final List<Map<String, Double>> candidates;
+	private final Collection<Supplier<? extends Agent>> referenceSuppliers;
+	private final int minRoundsPerMatch;
+	private final int maxRoundsPerMatch;
+	private final int reductionFactor;
+	private final Path resultsPath;
+	private final AgentPool referencePool;
+
+	/**
+	 * Construct an instance.
+	 *
+	 * @param agentFactory
+	 *            Creates a {@link Supplier} of candidate {@link Agent}s for a
+	 *            parameter set.
+	 * @param candidates
+	 *            The parameter sets to evaluate, e.g. from
+	 *            {@link #grid(Map)} or
+	 *            {@link #randomSearch(Map, Map, int, long)}.
+	 * @param referenceSuppliers
+	 *            The reference field. Each supplier should always return a new
+	 *            instance of the same {@link Agent} type.
+	 * @param minRoundsPerMatch
+	 *            The number of rounds per match in the first rung.
+	 * @param maxRoundsPerMatch
+	 *            The upper bound on the number of rounds per match.
+	 * @param reductionFactor
+	 *            The factor by which match length grows, and the number of
+	 *            candidates shrinks, between rungs.
+	 * @param resultsPath
+	 *            The CSV file results are streamed to.
+	 */
+	Sweep(Function<Map<String, Double>, Supplier<? extends Agent>> agentFactory, List<Map<String, Double>> candidates,
+			Collection<Supplier<? extends Agent>> referenceSuppliers, int minRoundsPerMatch, int maxRoundsPerMatch,
+			int reductionFactor, Path resultsPath) {
+		if (candidates.isEmpty()) {
+			throw new IllegalArgumentException("No candidates to evaluate");
+		}
+		if (minRoundsPerMatch < 1 || maxRoundsPerMatch < minRoundsPerMatch) {
+			throw new IllegalArgumentException(
+					String.format("Invalid rounds per match range: [%d, %d]", minRoundsPerMatch, maxRoundsPerMatch));
+		}
+		if (reductionFactor < 2) {
+			throw new IllegalArgumentException("reductionFactor must be at least 2: " + reductionFactor);
+		}
+		this.agentFactory = agentFactory;
+		this.candidates = candidates;
+		this.referenceSuppliers = referenceSuppliers;
+		this.minRoundsPerMatch = minRoundsPerMatch;
+		this.maxRoundsPerMatch = maxRoundsPerMatch;
+		this.reductionFactor = reductionFactor;
+		this.resultsPath = resultsPath;
+		this.referencePool = new AgentPool(false);
+	}
+
+	/**
+	 * Run the sweep, streaming every evaluation to the results file and
+	 * printing the best candidate to standard out.
+	 */
+	@Override
+	public void run() {
+		List<String> parameterNames = new ArrayList<>(new TreeMap<>(candidates.get(0)).keySet());
+
+		ExecutorService evaluationExecutorService = Executors
+				.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(resultsPath))) {
+			List<String> header = new ArrayList<>();
+			header.add("Rung");
+			header.add("Rounds");
+			header.addAll(parameterNames);
+			header.add("Points Per Round");
+			out.println(String.join(",", header));
+
+			List<Integer> survivors = IntStream.range(0, candidates.size()).boxed().collect(Collectors.toList());
+			int roundsPerMatch = minRoundsPerMatch;
+			for (int rung = 0;; rung++) {
+				System.out.println(String.format("Rung %d: %d candidates, %d rounds per match", rung, survivors.size(),
+						roundsPerMatch));
+
+				List<Evaluation> evaluations = evaluate(evaluationExecutorService, survivors, roundsPerMatch, rung,
+						parameterNames, out);
+				evaluations.sort(Comparator.comparingDouble(Evaluation::getPointsPerRound).reversed()
+						.thenComparingInt(Evaluation::getIndex));
+
+				if (roundsPerMatch >= maxRoundsPerMatch) {
+					Evaluation best = evaluations.get(0);
+					System.out.println(String.format("\n*** BEST: %s (%s points per round at %d rounds per match) ***",
+							best.getParameters(), best.getPointsPerRound(), roundsPerMatch));
+					break;
+				}
+
+				int survivorCount = Math.max(1, evaluations.size() / reductionFactor);
+				long nextRoundsPerMatch = (long) roundsPerMatch * reductionFactor;
+				if (survivorCount < reductionFactor || nextRoundsPerMatch >= maxRoundsPerMatch) {
+					// Final rung: compare the finalists at full length
+					survivorCount = Math.max(survivorCount, Math.min(evaluations.size(), reductionFactor));
+					nextRoundsPerMatch = maxRoundsPerMatch;
+				}
+
+				survivors = evaluations.subList(0, survivorCount).stream().map(Evaluation::getIndex)
+						.collect(Collectors.toList());
+				roundsPerMatch = (int) nextRoundsPerMatch;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			evaluationExecutorService.shutdownNow();
+		}
+	}
+
+	/**
+	 * Evaluate every candidate in parallel, writing each evaluation to the
+	 * results file as it completes.
+	 *
+	 * @param rungCandidates
+	 *            The indices of the candidates to evaluate.
+	 * @return The evaluations, in completion order.
+	 */
+	private List<Evaluation> evaluate(ExecutorService executorService, List<Integer> rungCandidates,
+			int roundsPerMatch, int rung, List<String> parameterNames, PrintWriter out) {
+		IPD ipd = new IPD(referenceSuppliers, roundsPerMatch);
+		CompletionService<Evaluation> completionService = new ExecutorCompletionService<>(executorService);
+		rungCandidates.forEach(index -> completionService.submit(() -> evaluate(index, ipd)));
+
+		List<Evaluation> evaluations = new ArrayList<>(rungCandidates.size());
+		for (int i = 0; i < rungCandidates.size(); i++) {
+			Evaluation evaluation;
+			try {
+				evaluation = completionService.take().get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+			evaluations.add(evaluation);
+
+			List<String> record = new ArrayList<>();
+			record.add(Integer.toString(rung));
+			record.add(Integer.toString(roundsPerMatch));
+			parameterNames.stream().map(name -> String.valueOf(evaluation.getParameters().get(name)))
+					.forEach(record::add);
+			record.add(Double.toString(evaluation.getPointsPerRound()));
+			out.println(String.join(",", record));
+			out.flush();
+		}
+		return evaluations;
+	}
+
+	/**
+	 * Evaluate a single candidate by playing one match against each member of
+	 * the reference field, using the tournament's match engine.
+	 *
+	 * @param ipd
+	 *            An {@link IPD} configured with the rung's match length.
+	 */
+	private Evaluation evaluate(int index, IPD ipd) {
+		Map<String, Double> parameters = candidates.get(index);
+		Supplier<? extends Agent> candidateSupplier = agentFactory.apply(parameters);
+		long score = 0;
+		for (Supplier<? extends Agent> referenceSupplier : referenceSuppliers) {
+			Agent candidate = candidateSupplier.get();
+			Agent reference = referencePool.acquire(referenceSupplier);
+			try {
+				score += ipd.playMatch(candidate, reference)[0].getScore();
+			} finally {
+				referencePool.release(referenceSupplier, reference);
+			}
+		}
+		return new Evaluation(index, parameters,
+				(double) score / ((long) ipd.getRoundsPerMatch() * referenceSuppliers.size()));
+	}
+
+	/**
+	 * Build the cartesian product of the given parameter values.
+	 *
+	 * @param axes
+	 *            The values to try for each named parameter.
+	 * @return Every combination of one value per parameter.
+	 */
+	public static List<Map<String, Double>> grid(Map<String, double[]> axes) {
+		List<Map<String, Double>> grid = Collections.singletonList(Collections.emptyMap());
+		for (Map.Entry<String, double[]> axis : axes.entrySet()) {
+			List<Map<String, Double>> expanded = new ArrayList<>(grid.size() * axis.getValue().length);
+			for (Map<String, Double> partial : grid) {
+				for (double value : axis.getValue()) {
+					Map<String, Double> parameters = new LinkedHashMap<>(partial);
+					parameters.put(axis.getKey(), value);
+					expanded.add(parameters);
+				}
+			}
+			grid = expanded;
+		}
+		return grid;
+	}
+
+	/**
+	 * Draw parameter sets uniformly at random from the given bounds.
+	 *
+	 * @param bounds
+	 *            The inclusive lower and exclusive upper bound, as a two
+	 *            element array, for each named continuous parameter.
+	 * @param integerBounds
+	 *            The inclusive lower and upper bound, as a two element array,
+	 *            for each named integer parameter. Values are drawn uniformly
+	 *            from the integers in range, so factories may convert them
+	 *            with {@link Double#intValue()}.
+	 * @param count
+	 *            The number of parameter sets to draw.
+	 * @param seed
+	 *            The random seed, making the search space reproducible.
+	 * @return The drawn parameter sets.
+	 */
+	public static List<Map<String, Double>> randomSearch(Map<String, double[]> bounds, Map<String, int[]> integerBounds,
+			int count, long seed) {
+		java.util.Random random = new java.util.Random(seed);
+		List<Map<String, Double>> candidates = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Map<String, Double> parameters = new LinkedHashMap<>();
+			bounds.forEach((name, range) -> parameters.put(name, range[0] + random.nextDouble() * (range[1] - range[0])));
+			integerBounds.forEach((name, range) -> parameters.put(name,
+					(double) (range[0] + random.nextInt(range[1] - range[0] + 1))));
+			candidates.add(parameters);
+		}
+		return candidates;
+	}
+
+	/**
+	 * Sweep {@link ForgivingTitForTat}'s parameters over a grid or, if the
+	 * system property ipd.sweepRandomCandidates is set, over that many
+	 * parameter sets drawn at random using the seed ipd.sweepSeed.
+	 */
+	public static void main(String... args) {
+		List<Map<String, Double>> candidates;
+		Integer randomCandidates = Integer.getInteger("ipd.sweepRandomCandidates");
+		if (randomCandidates != null) {
+			Map<String, double[]> bounds = new LinkedHashMap<>();
+			bounds.put("forgivenessProbability", new double[] { 0.0, 0.5 });
+			Map<String, int[]> integerBounds = new LinkedHashMap<>();
+			integerBounds.put("retaliationWindow", new int[] { 1, 5 });
+			candidates = randomSearch(bounds, integerBounds, randomCandidates, Long.getLong("ipd.sweepSeed", 0L));
+		} else {
+			Map<String, double[]> axes = new LinkedHashMap<>();
+			axes.put("forgivenessProbability", new double[] { 0.0, 0.05, 0.1, 0.2, 0.3, 0.5 });
+			axes.put("retaliationWindow", new double[] { 1, 2, 3, 4, 5 });
+			candidates = grid(axes);
+		}
+
+		Function<Map<String, Double>, Supplier<? extends Agent>> agentFactory = parameters -> () -> new ForgivingTitForTat(
+				parameters.get("forgivenessProbability"), parameters.get("retaliationWindow").intValue());
+
+		try {
+			new Sweep(agentFactory, candidates, IPD.AGENT_FACTORIES, 100, 8100, 3, Paths.get(RESULTS_FILE)).run();
+		} catch (Throwable t) {
+			t.printStackTrace();
+		}
+	}
+
+	/**
+	 * A candidate's parameters and its average points per round in a rung.
+	 */
+	private static final class Evaluation {
+		private final int index;
+		private final Map<String, Double> parameters;
+		private final double pointsPerRound;
+
+		Evaluation(int index, Map<String, Double> parameters, double pointsPerRound) {
+			this.index = index;
+			this.parameters = parameters;
+			this.pointsPerRound = pointsPerRound;
+		}
+
+		/**
+		 * @return The candidate's position in the sweep's candidate list.
+		 */
+		int getIndex() {
+			return index;
+		}
+
+		Map<String, Double> getParameters() {
+			return parameters;
+		}
+
+		double getPointsPerRound() {
+			return pointsPerRound;
+		}
+	}
+
+}
@@ -2,18 +2,23 @@ package com.mandli.ipd.impl;
 
 import com.mandli.ipd.Action;
 import com.mandli.ipd.ActionProcessor;
-import com.mandli.ipd.Agent;
+import com.mandli.ipd.ResettableAgent;
 
 /**
  * An agent using this strategy of simply always cooperating.
  *
  * @author egoepfert on 4/14/16.
  */
-public class AlwaysCooperate implements Agent {
+public class AlwaysCooperate implements ResettableAgent {
 
 	@Override
 	public void performAction(ActionProcessor actionProcessor) {
 		actionProcessor.submitAction(Action.COOPERATE);
 	}
 
+	@Override
+	public void reset() {
+		// Stateless
+	}
+
 }
@@ -0,0 +1,80 @@
+package com.mandli.ipd.impl;
+
+import com.mandli.ipd.Action;
+import com.mandli.ipd.ActionProcessor;
+import com.mandli.ipd.ResettableAgent;
+import com.mandli.ipd.Result;
+import com.mandli.ipd.StochasticAgent;
+
+/**
+ * An agent using a parameterized variant of tit for tat: it cooperates until the opponent defects, then retaliates by defecting for a fixed window of rounds. Each
+ * defection may instead be forgiven with a fixed probability.
+ *
+ * @author yatinsingla on 5/17/18.
+ */
+public class ForgivingTitForTat implements ResettableAgent, StochasticAgent {
+
+	private final double forgivenessProbability;
+	private final int retaliationWindow;
+
+	private int retaliationRemaining;
+	private java.util.Random random = new java.util.Random();
+
+	public ForgivingTitForTat() {
+		this(0.1, 1);
+	}
+
+	/**
+	 * Construct an instance.
+	 *
+	 * @param forgivenessProbability The probability, in [0, 1], of ignoring an opponent's defection.
+	 * @param retaliationWindow The number of rounds to defect after an unforgiven defection.
+	 */
+	public ForgivingTitForTat(double forgivenessProbability, int retaliationWindow) {
+		if (forgivenessProbability < 0 || forgivenessProbability > 1) {
+			throw new IllegalArgumentException("forgivenessProbability must be in [0, 1]: " + forgivenessProbability);
+		}
+		if (retaliationWindow < 0) {
+			throw new IllegalArgumentException("retaliationWindow must not be negative: " + retaliationWindow);
+		}
+		this.forgivenessProbability = forgivenessProbability;
+		this.retaliationWindow = retaliationWindow;
+	}
+
+	@Override
+	public void performAction(ActionProcessor actionProcessor) {
+		Action action = Action.COOPERATE;
+		if (retaliationRemaining > 0) {
+			action = Action.DEFECT;
+			retaliationRemaining--;
+		}
+		Result result = actionProcessor.submitAction(action);
+		if (result.getOpponentAction() == Action.DEFECT && random.nextDouble() >= forgivenessProbability) {
+			retaliationRemaining = retaliationWindow;
+		}
+	}
+
+	@Override
+	public void reset() {
+		retaliationRemaining = 0;
+	}
+
+	@Override
+	public void setRandom(java.util.Random random) {
+		this.random = random;
+	}
+
+	/**
+	 * @return False if forgiveness is certain or impossible, in which case no decision depends on chance.
+	 */
+	@Override
+	public boolean isStochastic() {
+		return forgivenessProbability > 0 && forgivenessProbability < 1;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s(%s, %d)", getClass().getSimpleName(), forgivenessProbability, retaliationWindow);
+	}
+
+}
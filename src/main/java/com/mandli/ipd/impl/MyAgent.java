@@ -2,7 +2,7 @@ package com.mandli.ipd.impl;
 
 import com.mandli.ipd.Action;
 import com.mandli.ipd.ActionProcessor;
-import com.mandli.ipd.Agent;
+import com.mandli.ipd.ResettableAgent;
 
 /**
  * This agent (MyAgent) using the following two strategies -------------------
@@ -14,7 +14,7 @@ import com.mandli.ipd.Agent;
  * @author yatinsingla on 5/17/18.
  */
 
-public class MyAgent implements Agent {
+public class MyAgent implements ResettableAgent {
 
 	@Override
 	public void performAction(ActionProcessor actionProcessor) {
@@ -23,4 +23,9 @@ public class MyAgent implements Agent {
 		actionProcessor.submitAction(Action.DEFECT);
 	}
 
+	@Override
+	public void reset() {
+		// Stateless
+	}
+
 }
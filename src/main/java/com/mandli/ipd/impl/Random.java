@@ -2,18 +2,31 @@ package com.mandli.ipd.impl;
 
 import com.mandli.ipd.Action;
 import com.mandli.ipd.ActionProcessor;
-import com.mandli.ipd.Agent;
+import com.mandli.ipd.ResettableAgent;
+import com.mandli.ipd.StochasticAgent;
 
 /**
  * An agent using this strategy of making a random choice between cooperate and defect.
  *
  * @author egoepfert on 4/14/16.
  */
-public class Random implements Agent {
+public class Random implements ResettableAgent, StochasticAgent {
+
+	private java.util.Random random = new java.util.Random();
 
 	@Override
 	public void performAction(ActionProcessor actionProcessor) {
-		actionProcessor.submitAction(Math.random() < 0.5 ? Action.COOPERATE : Action.DEFECT);
+		actionProcessor.submitAction(random.nextDouble() < 0.5 ? Action.COOPERATE : Action.DEFECT);
+	}
+
+	@Override
+	public void reset() {
+		// Stateless
+	}
+
+	@Override
+	public void setRandom(java.util.Random random) {
+		this.random = random;
 	}
 
 }
@@ -2,7 +2,7 @@ package com.mandli.ipd.impl;
 
 import com.mandli.ipd.Action;
 import com.mandli.ipd.ActionProcessor;
-import com.mandli.ipd.Agent;
+import com.mandli.ipd.ResettableAgent;
 import com.mandli.ipd.Result;
 
 /**
@@ -10,7 +10,7 @@ import com.mandli.ipd.Result;
  *
  * @author egoepfert on 4/14/16.
  */
-public class TitForTat implements Agent {
+public class TitForTat implements ResettableAgent {
 
 	private Action prevOpponentAction;
 
@@ -24,4 +24,9 @@ public class TitForTat implements Agent {
 		prevOpponentAction = result.getOpponentAction();
 	}
 
+	@Override
+	public void reset() {
+		prevOpponentAction = Action.COOPERATE;
+	}
+
 }